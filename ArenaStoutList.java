@@ -0,0 +1,567 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A StoutList whose nodes live in an arena instead of being separate objects.
+ * Node 'n' keeps its elements in 'data[n * nodeSize, n * nodeSize + count[n])' and is linked through the parallel
+ * 'next' and 'previous' int arrays, so traversal walks a few flat arrays rather than chasing references around the heap.
+ * Slots of deleted nodes go on a free list and are handed out again before the arena grows.
+ *
+ * Adding and removing follow the same rules as StoutList, so both lists end up with the same node layout
+ * after the same sequence of operations.
+ */
+
+public class ArenaStoutList<E extends Comparable<? super E>> extends AbstractSequentialList<E> {
+	/**
+	 * Default number of elements that may be stored in each node.
+	 */
+	private static final int DEFAULT_NODESIZE = 4;
+
+	/**
+	 * Number of node slots the arena starts with, including the two dummy nodes.
+	 */
+	private static final int INITIAL_SLOTS = 16;
+
+	/**
+	 * Slot of the dummy head node.
+	 */
+	private static final int HEAD = 0;
+
+	/**
+	 * Slot of the dummy tail node.
+	 */
+	private static final int TAIL = 1;
+
+	/**
+	 * Marks the end of the free list.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Number of elements that can be stored in each node.
+	 */
+	private final int nodeSize;
+
+	/**
+	 * Elements of all nodes; node 'n' owns the 'nodeSize' entries starting at 'n * nodeSize'.
+	 */
+	private E[] data;
+
+	/**
+	 * Number of elements in each node.
+	 */
+	private int[] count;
+
+	/**
+	 * Slot of the node after each node.
+	 */
+	private int[] next;
+
+	/**
+	 * Slot of the node before each node.
+	 */
+	private int[] previous;
+
+	/**
+	 * First slot of the free list, which is chained through 'next'.
+	 */
+	private int free = NONE;
+
+	/**
+	 * Number of slots that have ever been handed out; slots past this one have never been used.
+	 */
+	private int used;
+
+	/**
+	 * Number of elements in the list.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty list with the default node size.
+	 */
+	public ArenaStoutList() {
+		this(DEFAULT_NODESIZE);
+	}
+
+	/**
+	 * Constructs an empty list with a specified node size.
+	 *
+	 * @param nodeSize The number of elements that may be stored in each node; it must be an even number.
+	 */
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ArenaStoutList(int nodeSize) {
+		if (nodeSize <= 0 || nodeSize % 2 != 0)
+			throw new IllegalArgumentException();
+
+		this.nodeSize = nodeSize;
+		// Unchecked warning unavoidable.
+		data = (E[]) new Comparable[INITIAL_SLOTS * nodeSize];
+		count = new int[INITIAL_SLOTS];
+		next = new int[INITIAL_SLOTS];
+		previous = new int[INITIAL_SLOTS];
+
+		// dummy nodes
+		used = 2;
+		next[HEAD] = TAIL;
+		previous[TAIL] = HEAD;
+	}
+
+	/**
+	 * @return the number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an item to the end of the list.
+	 *
+	 * @param item The item to add to the list.
+	 * @return 'true' if the item was added successfully, 'false' if the item already exists in the list.
+	 * @throws NullPointerException If 'item' is null.
+	 */
+	@Override
+	public boolean add(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		if (contains(item))
+			return false;
+		appendItem(item);
+		return true;
+	}
+
+	/**
+	 * Checks if the list contains a specific element.
+	 *
+	 * @param element The element to search for.
+	 * @return 'true' if the list contains the element, 'false' otherwise.
+	 */
+
+	public boolean contains(E element) {
+		for (int node = next[HEAD]; node != TAIL; node = next[node]) {
+			int base = node * nodeSize;
+			for (int i = base; i < base + count[node]; i++) {
+				if (data[i].equals(element))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds an element to a specific position in the list, following the same rules as StoutList:
+	 * an element at the start of a node goes into the predecessor if it has room, a full node is split in half,
+	 * and an element at the very end goes into the last node or a new one.
+	 *
+	 * @param pos The position where the element should be added.
+	 * @param element The element to add to the list.
+	 * @throws IndexOutOfBoundsException If 'pos' is out of bounds.
+	 */
+	@Override
+	public void add(int pos, E element) {
+		if (pos < 0 || pos > size)
+			throw new IndexOutOfBoundsException();
+		if (element == null)
+			throw new NullPointerException();
+
+		if (next[HEAD] == TAIL) {
+			appendItem(element);
+			return;
+		}
+
+		Position position = find(pos);
+		int node = position.node;
+		int offset = position.offset;
+
+		if (offset == 0) {
+			int predecessor = previous[node];
+			if (predecessor != HEAD && count[predecessor] < nodeSize) {
+				addItem(predecessor, count[predecessor], element);
+				size++;
+				return;
+			} else if (node == TAIL) {
+				appendItem(element);
+				return;
+			}
+		}
+
+		if (count[node] < nodeSize) {
+			addItem(node, offset, element);
+		} else {
+			// split: the upper half moves into a new successor
+			int half = nodeSize / 2;
+			int successor = allocate();
+			System.arraycopy(data, node * nodeSize + half, data, successor * nodeSize, half);
+			Arrays.fill(data, node * nodeSize + half, (node + 1) * nodeSize, null);
+			count[node] = half;
+			count[successor] = half;
+			linkAfter(node, successor);
+
+			if (offset <= half)
+				addItem(node, offset, element);
+			else
+				addItem(successor, offset - half, element);
+		}
+		size++;
+	}
+
+	/**
+	 * Removes the element at a specific position, following the same rules as StoutList:
+	 * a last node with one element is deleted, a last node or a node more than half full just loses the element,
+	 * and otherwise the node takes one element from its successor or absorbs it entirely.
+	 *
+	 * @param position The position of the element to be removed.
+	 * @return The removed element.
+	 * @throws IndexOutOfBoundsException If 'position' is out of bounds.
+	 */
+	@Override
+	public E remove(int position) {
+		if (position < 0 || position >= size)
+			throw new IndexOutOfBoundsException();
+
+		Position found = find(position);
+		int node = found.node;
+		int offset = found.offset;
+		E removed = data[node * nodeSize + offset];
+
+		if (next[node] == TAIL && count[node] == 1) {
+			unlink(node);
+		} else if (next[node] == TAIL || count[node] > nodeSize / 2) {
+			removeItem(node, offset);
+		} else {
+			removeItem(node, offset);
+			int successor = next[node];
+			if (count[successor] > nodeSize / 2) {
+				// mini-merge
+				addItem(node, count[node], data[successor * nodeSize]);
+				removeItem(successor, 0);
+			} else {
+				// full merge
+				System.arraycopy(data, successor * nodeSize, data, node * nodeSize + count[node], count[successor]);
+				count[node] += count[successor];
+				unlink(successor);
+			}
+		}
+		size--;
+		return removed;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new ArenaStoutListIterator(0);
+	}
+
+	@Override
+	public ListIterator<E> listIterator() {
+		return new ArenaStoutListIterator(0);
+	}
+
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		if (index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		return new ArenaStoutListIterator(index);
+	}
+
+	/**
+	 * Passes each element to an action, reading the arena directly.
+	 *
+	 * @param action The action to perform on each element.
+	 */
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		if (action == null)
+			throw new NullPointerException();
+		for (int node = next[HEAD]; node != TAIL; node = next[node]) {
+			int base = node * nodeSize;
+			for (int i = base; i < base + count[node]; i++) {
+				action.accept(data[i]);
+			}
+		}
+	}
+
+	/**
+	 * Generates a string representation of this list, displaying the internal structure of the nodes
+	 * in the same format as StoutList.
+	 */
+
+	public String toStringInternal() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		for (int node = next[HEAD]; node != TAIL; node = next[node]) {
+			sb.append('(');
+			for (int i = 0; i < nodeSize; ++i) {
+				if (i > 0)
+					sb.append(", ");
+				E item = data[node * nodeSize + i];
+				sb.append(item == null ? "-" : item.toString());
+			}
+			sb.append(')');
+			if (next[node] != TAIL)
+				sb.append(", ");
+		}
+		sb.append(']');
+		return sb.toString();
+	}
+
+	/**
+	 * Places an item after the last element, filling the last node before starting a new one.
+	 *
+	 * @param item The item to append.
+	 */
+
+	private void appendItem(E item) {
+		int last = previous[TAIL];
+		if (last == HEAD || count[last] >= nodeSize) {
+			last = allocate();
+			linkAfter(previous[TAIL], last);
+		}
+		addItem(last, count[last], item);
+		size++;
+	}
+
+	/**
+	 * Inserts an item into a node at the given offset, shifting later elements to the right.
+	 * Precondition: the node has fewer than 'nodeSize' elements.
+	 *
+	 * @param node The slot of the node.
+	 * @param offset The offset at which to place the item.
+	 * @param item The item to be added.
+	 */
+
+	private void addItem(int node, int offset, E item) {
+		int base = node * nodeSize;
+		System.arraycopy(data, base + offset, data, base + offset + 1, count[node] - offset);
+		data[base + offset] = item;
+		count[node]++;
+	}
+
+	/**
+	 * Removes the element at the given offset of a node, shifting later elements to the left.
+	 *
+	 * @param node The slot of the node.
+	 * @param offset The offset of the element to remove.
+	 */
+
+	private void removeItem(int node, int offset) {
+		int base = node * nodeSize;
+		System.arraycopy(data, base + offset + 1, data, base + offset, count[node] - offset - 1);
+		data[base + --count[node]] = null;
+	}
+
+	/**
+	 * Takes a slot from the free list, or a fresh one, growing the arena when it is full.
+	 *
+	 * @return The slot of an empty, unlinked node.
+	 */
+
+	private int allocate() {
+		if (free != NONE) {
+			int node = free;
+			free = next[node];
+			return node;
+		}
+		if (used == count.length) {
+			int slots = count.length * 2;
+			data = Arrays.copyOf(data, slots * nodeSize);
+			count = Arrays.copyOf(count, slots);
+			next = Arrays.copyOf(next, slots);
+			previous = Arrays.copyOf(previous, slots);
+		}
+		return used++;
+	}
+
+	/**
+	 * Links a node into the chain right after another node.
+	 *
+	 * @param predecessor The slot of the node to link after.
+	 * @param node The slot of the node to link in.
+	 */
+
+	private void linkAfter(int predecessor, int node) {
+		int successor = next[predecessor];
+		next[predecessor] = node;
+		previous[node] = predecessor;
+		next[node] = successor;
+		previous[successor] = node;
+	}
+
+	/**
+	 * Unlinks a node from the chain, clears its elements and puts its slot on the free list.
+	 *
+	 * @param node The slot of the node to remove.
+	 */
+
+	private void unlink(int node) {
+		next[previous[node]] = next[node];
+		previous[next[node]] = previous[node];
+		Arrays.fill(data, node * nodeSize, (node + 1) * nodeSize, null);
+		count[node] = 0;
+		previous[node] = NONE;
+		next[node] = free;
+		free = node;
+	}
+
+	/**
+	 * A node slot and an offset within it.
+	 */
+	private static class Position {
+		public int node;
+		public int offset;
+
+		public Position(int node, int offset) {
+			this.node = node;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Finds the node and offset of a position in the list.
+	 *
+	 * @param pos The position to look up.
+	 * @return The Position of the element, or the tail at offset 0 if 'pos' equals the size.
+	 */
+
+	private Position find(int pos) {
+		int currPos = 0;
+		for (int node = next[HEAD]; node != TAIL; node = next[node]) {
+			if (currPos + count[node] > pos)
+				return new Position(node, pos - currPos);
+			currPos += count[node];
+		}
+		return new Position(TAIL, 0);
+	}
+
+	/**
+	 * Iterator that walks the arena directly instead of copying the list.
+	 * Structural changes made through it go through the list and then look the cursor up again.
+	 */
+	private class ArenaStoutListIterator implements ListIterator<E> {
+		/**
+		 * Index of the element that 'next()' would return.
+		 */
+		private int index;
+
+		/**
+		 * Node of the cursor; the element 'next()' would return is at 'offset' in it, or at the start of the following node if 'offset' equals its count.
+		 */
+		private int node;
+
+		/**
+		 * Offset of the cursor within 'node'.
+		 */
+		private int offset;
+
+		/**
+		 * Node and offset of the element last returned by 'next()' or 'previous()', or NONE.
+		 */
+		private int lastNode = NONE;
+		private int lastOffset;
+
+		/**
+		 * Index of the element last returned by 'next()' or 'previous()'.
+		 */
+		private int lastIndex;
+
+		public ArenaStoutListIterator(int index) {
+			seek(index);
+		}
+
+		/**
+		 * Places the cursor before the element at 'index'.
+		 */
+		private void seek(int index) {
+			Position position = find(index);
+			this.index = index;
+			this.node = position.node;
+			this.offset = position.offset;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			if (offset == count[node]) {
+				node = next[node];
+				offset = 0;
+			}
+			lastNode = node;
+			lastOffset = offset;
+			lastIndex = index;
+			index++;
+			return data[node * nodeSize + offset++];
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return index > 0;
+		}
+
+		@Override
+		public E previous() {
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+			if (offset == 0) {
+				node = previous[node];
+				offset = count[node];
+			}
+			offset--;
+			index--;
+			lastNode = node;
+			lastOffset = offset;
+			lastIndex = index;
+			return data[node * nodeSize + offset];
+		}
+
+		@Override
+		public int nextIndex() {
+			return index;
+		}
+
+		@Override
+		public int previousIndex() {
+			return index - 1;
+		}
+
+		@Override
+		public void remove() {
+			if (lastNode == NONE)
+				throw new IllegalStateException();
+			ArenaStoutList.this.remove(lastIndex);
+			seek(lastIndex);
+			lastNode = NONE;
+		}
+
+		@Override
+		public void set(E element) {
+			if (lastNode == NONE)
+				throw new IllegalStateException();
+			if (element == null)
+				throw new NullPointerException();
+			data[lastNode * nodeSize + lastOffset] = element;
+		}
+
+		@Override
+		public void add(E element) {
+			if (element == null)
+				throw new NullPointerException();
+			ArenaStoutList.this.add(index, element);
+			seek(index + 1);
+			lastNode = NONE;
+		}
+	}
+}
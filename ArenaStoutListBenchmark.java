@@ -0,0 +1,94 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares node traversal speed of StoutList and ArenaStoutList.
+ * Both lists are built with the same random insertions, so they have the same node layout, but the StoutList nodes
+ * end up scattered over the heap by the splits while the arena keeps them in a few flat arrays.
+ *
+ * Two walks are timed on each list, both of which read the nodes in place without copying the list:
+ * a failed 'contains', which visits every node the way 'find()' does, and 'forEach' summing the elements.
+ * Each walk is first run untimed for the warm-up passes so the JIT has compiled it, then timed for the measured
+ * passes; the median of the measured passes is reported.
+ *
+ * Usage: java edu.iastate.cs228.hw3.ArenaStoutListBenchmark [elements] [nodeSize] [warmup] [measured]
+ */
+
+public class ArenaStoutListBenchmark {
+
+	/**
+	 * Results of the walks are folded in here and printed at the end so the JIT cannot drop them.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int nodeSize = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+		int measured = args.length > 3 ? Integer.parseInt(args[3]) : 51;
+
+		StoutList<Integer> stout = new StoutList<>(nodeSize);
+		ArenaStoutList<Integer> arena = new ArenaStoutList<>(nodeSize);
+		Random random = new Random(42);
+		for (int i = 0; i < elements; i++) {
+			int pos = random.nextInt(i + 1);
+			stout.add(pos, i);
+			arena.add(pos, i);
+		}
+
+		report("contains (miss)", warmup, measured,
+				() -> stout.contains(-1) ? 1L : 0L,
+				() -> arena.contains(-1) ? 1L : 0L);
+		report("forEach sum", warmup, measured,
+				() -> sum(stout),
+				() -> sum(arena));
+		System.out.println("(sink " + sink + ")");
+	}
+
+	/**
+	 * Warms up and then times one walk on both lists, interleaving the two so drift affects both alike,
+	 * and prints the median of each.
+	 */
+	private static void report(String name, int warmup, int measured, Supplier<Long> stoutWalk, Supplier<Long> arenaWalk) {
+		for (int i = 0; i < warmup; i++) {
+			sink += stoutWalk.get();
+			sink += arenaWalk.get();
+		}
+
+		long[] stoutTimes = new long[measured];
+		long[] arenaTimes = new long[measured];
+		for (int i = 0; i < measured; i++) {
+			stoutTimes[i] = time(stoutWalk);
+			arenaTimes[i] = time(arenaWalk);
+		}
+
+		double stoutMedian = median(stoutTimes) / 1e6;
+		double arenaMedian = median(arenaTimes) / 1e6;
+		System.out.printf("%-16s stout %8.3f ms   arena %8.3f ms   speedup %.2fx%n",
+				name, stoutMedian, arenaMedian, stoutMedian / arenaMedian);
+	}
+
+	/**
+	 * @return nanoseconds taken by one run of the walk
+	 */
+	private static long time(Supplier<Long> walk) {
+		long start = System.nanoTime();
+		sink += walk.get();
+		return System.nanoTime() - start;
+	}
+
+	private static long median(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static long sum(Iterable<Integer> list) {
+		long[] total = new long[1];
+		list.forEach(item -> total[0] += item);
+		return total[0];
+	}
+}
@@ -0,0 +1,72 @@
+package edu.iastate.cs228.hw3;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes list elements to a binary stream and reads them back.
+ * Used wherever elements of a StoutList leave the heap, such as change log files.
+ *
+ * @param <E> The element type.
+ */
+
+public interface ElementCodec<E> {
+
+	/**
+	 * Writes one element.
+	 *
+	 * @param out The stream to write to.
+	 * @param element The element to write; never null.
+	 * @throws IOException If the stream cannot be written.
+	 */
+	void write(DataOutput out, E element) throws IOException;
+
+	/**
+	 * Reads one element written by 'write'.
+	 *
+	 * @param in The stream to read from.
+	 * @return The element read.
+	 * @throws IOException If the stream cannot be read.
+	 */
+	E read(DataInput in) throws IOException;
+
+	/**
+	 * @return a codec for Integer elements, four bytes each
+	 */
+	static ElementCodec<Integer> integers() {
+		return new ElementCodec<Integer>() {
+			@Override
+			public void write(DataOutput out, Integer element) throws IOException {
+				out.writeInt(element);
+			}
+
+			@Override
+			public Integer read(DataInput in) throws IOException {
+				return in.readInt();
+			}
+		};
+	}
+
+	/**
+	 * @return a codec for String elements, written as a byte count followed by the UTF-8 bytes
+	 */
+	static ElementCodec<String> strings() {
+		return new ElementCodec<String>() {
+			@Override
+			public void write(DataOutput out, String element) throws IOException {
+				byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			@Override
+			public String read(DataInput in) throws IOException {
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+		};
+	}
+}
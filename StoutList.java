@@ -1,11 +1,36 @@
 package edu.iastate.cs228.hw3;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.file.Path;
 import java.util.AbstractSequentialList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 /**
  * This class implements a list interface using linked nodes that can store multiple items per node.
@@ -18,6 +43,16 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 */
 	private static final int DEFAULT_NODESIZE = 4;
 
+	/**
+	 * Approximate number of elements scanned by one task of a parallel search before it stops splitting.
+	 */
+	private static final int PARALLEL_GRAIN = 8192;
+
+	/**
+	 * Smallest number of resident nodes allowed in tiered mode; an operation works on at most this many nodes at once.
+	 */
+	private static final int MIN_RESIDENT_NODES = 4;
+
 	/**
 	 * Number of elements that can be stored in each node.
 	 */
@@ -40,6 +75,16 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 */
 	private int size;
 
+	/**
+	 * Log that records structural changes, or null if changes are not recorded.
+	 */
+	private StoutListChangeLog<E> changeLog;
+
+	/**
+	 * Cache of resident node payloads in tiered mode, or null if every node stays in memory.
+	 */
+	private PayloadCache cache;
+
 	/**
 	 * Constructs an empty list with the default node size.
 	 */
@@ -119,6 +164,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	    } else {
 	        // If the last node is not full, add the item to it.
 	        if (tail.previous.count < nodeSize) {
+	            loadForWrite(tail.previous);
 	            tail.previous.addItem(item);
 	        }
 	        // If the last node is full, create another node at the end and add the item.
@@ -135,9 +181,233 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	    
 	    // Increase the size of the list since the item has been added.
 	    size++;
+	    if (changeLog != null)
+	        changeLog.recordInsert(size - 1, item);
 	    return true;
 	}
 
+	/**
+	 * Attaches a log that records every later insert, remove, replacement and sort, so replicas can replay them.
+	 *
+	 * @param changeLog The log to record into, or null to stop recording.
+	 */
+
+	public void setChangeLog(StoutListChangeLog<E> changeLog) {
+		this.changeLog = changeLog;
+	}
+
+	/**
+	 * @return the attached change log, or null if changes are not recorded
+	 */
+
+	public StoutListChangeLog<E> getChangeLog() {
+		return changeLog;
+	}
+
+	/**
+	 * Switches the list to tiered mode. The links and counts of all nodes stay in memory, but only the elements of the
+	 * 'maxResidentNodes' most recently used nodes do; the elements of other nodes are written to a page file and read
+	 * back when 'find()', iteration or a modification needs them. Iterators, and so 'get' and 'set', keep a cursor
+	 * into the chain and bring in one node at a time. Pages given up by removed or relocated nodes are reused for later
+	 * writes, and the whole file is reclaimed when the list is sorted or tiering is disabled.
+	 *
+	 * @param pageFile The file that holds evicted nodes; it is created or truncated.
+	 * @param maxResidentNodes The number of nodes whose elements may stay in memory; at least 4.
+	 * @param codec Writes and reads the elements.
+	 * @throws IOException If the page file cannot be opened or written.
+	 * @throws IllegalStateException If tiered mode is already enabled.
+	 * @throws IllegalArgumentException If 'maxResidentNodes' is less than 4.
+	 */
+
+	public void enableTiering(Path pageFile, int maxResidentNodes, ElementCodec<E> codec) throws IOException {
+		if (cache != null)
+			throw new IllegalStateException();
+		if (maxResidentNodes < MIN_RESIDENT_NODES)
+			throw new IllegalArgumentException();
+
+		PayloadCache created = new PayloadCache(pageFile, maxResidentNodes, codec);
+		try {
+			for (Node temporary = head.next; temporary != tail; temporary = temporary.next) {
+				forgetPage(temporary);
+				created.admit(temporary);
+			}
+		} catch (UncheckedIOException e) {
+			created.close();
+			throw e.getCause();
+		}
+		cache = created;
+	}
+
+	/**
+	 * Leaves tiered mode, reading every evicted node back into memory and closing the page file.
+	 *
+	 * @throws IOException If the page file cannot be read or closed.
+	 */
+
+	public void disableTiering() throws IOException {
+		if (cache == null)
+			return;
+		try {
+			cache.pinAll();
+			for (Node temporary = head.next; temporary != tail; temporary = temporary.next) {
+				cache.load(temporary, false);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		// The page file is truncated by the next 'enableTiering()', so no node may keep pointing into it.
+		for (Node temporary = head.next; temporary != tail; temporary = temporary.next) {
+			forgetPage(temporary);
+		}
+		cache.close();
+		cache = null;
+	}
+
+	/**
+	 * @return the hit, miss and eviction counts of the payload cache, or null if tiered mode is not enabled
+	 */
+
+	public CacheStats getCacheStats() {
+		return cache == null ? null : cache.stats();
+	}
+
+	/**
+	 * Appends a batch of items to the end of the list, packing them into full nodes.
+	 * Items already in the list, or repeated earlier in the batch, are skipped just as 'add(E)' would skip them,
+	 * but the list is walked only once per batch: a hash set of the batch's items is built, and every item the walk
+	 * finds in the list is struck from it. The walk stops as soon as nothing is left to strike.
+	 *
+	 * @param items The items to append, in order.
+	 * @return An array with one entry per item, 'true' if that item was added and 'false' if it was a duplicate.
+	 * @throws NullPointerException If any item is null; in that case the list is left unchanged.
+	 */
+
+	boolean[] appendBatch(List<? extends E> items) {
+		for (E item : items) {
+			if (item == null)
+				throw new NullPointerException();
+		}
+
+		Set<E> absent = new HashSet<>(items);
+		Node temporary = head.next;
+		while (temporary != tail && !absent.isEmpty()) {
+			E[] elements = load(temporary);
+			for (int i = 0; i < temporary.count; i++) {
+				absent.remove(elements[i]);
+			}
+			temporary = temporary.next;
+		}
+
+		boolean[] added = new boolean[items.size()];
+		int index = 0;
+		for (E item : items) {
+			// Removing the item means a later repeat of it in the batch is treated as a duplicate.
+			if (absent.remove(item)) {
+				appendItem(item);
+				added[index] = true;
+				if (changeLog != null)
+					changeLog.recordInsert(size - 1, item);
+			}
+			index++;
+		}
+		return added;
+	}
+
+	/**
+	 * Places an item after the last element, filling the last node before starting a new one.
+	 * No duplicate check is done here.
+	 *
+	 * @param item The item to append.
+	 */
+
+	private void appendItem(E item) {
+		Node last = tail.previous;
+		if (last == head || last.count >= nodeSize) {
+			last = new Node();
+			Node temporary = tail.previous;
+			temporary.next = last;
+			last.previous = temporary;
+			last.next = tail;
+			tail.previous = last;
+		} else {
+			loadForWrite(last);
+		}
+		last.addItem(item);
+		size++;
+	}
+
+	/**
+	 * Returns a Collector that gathers stream elements into a StoutList with packed nodes.
+	 * In a parallel stream each worker appends into its own list, and partial lists are joined by relinking their
+	 * boundary nodes, so combining costs O(nodeSize) regardless of how many elements each part holds.
+	 * Unlike 'add(E)', elements are not checked for duplicates; use 'distinct()' upstream if that is needed.
+	 *
+	 * @param nodeSize The number of elements that may be stored in each node; it must be an even number.
+	 * @return A Collector producing a StoutList in encounter order.
+	 * @throws IllegalArgumentException If 'nodeSize' is not a positive even number.
+	 */
+
+	public static <T extends Comparable<? super T>> Collector<T, ?, StoutList<T>> toStoutList(int nodeSize) {
+		if (nodeSize <= 0 || nodeSize % 2 != 0)
+			throw new IllegalArgumentException();
+
+		return Collector.of(() -> new StoutList<T>(nodeSize), (list, item) -> {
+			if (item == null)
+				throw new NullPointerException();
+			list.appendItem(item);
+		}, StoutList::splice, Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	/**
+	 * Moves all nodes of another list to the end of this one by relinking the two chains, leaving the other list empty.
+	 * If the last node of this list is less than half full once it is no longer last, it takes elements from the node
+	 * after it, or absorbs that node entirely, so that every node but the last is at least half full again.
+	 *
+	 * @param other The list whose nodes are moved; it must have the same node size.
+	 * @return This list.
+	 * @throws IllegalArgumentException If the node sizes differ.
+	 */
+
+	private StoutList<E> splice(StoutList<E> other) {
+		if (other.nodeSize != nodeSize)
+			throw new IllegalArgumentException();
+		if (other == this || other.size == 0)
+			return this;
+
+		Node seam = tail.previous;
+		Node first = other.head.next;
+		Node last = other.tail.previous;
+		seam.next = first;
+		first.previous = seam;
+		last.next = tail;
+		tail.previous = last;
+		size += other.size;
+
+		other.head.next = other.tail;
+		other.tail.previous = other.head;
+		other.size = 0;
+
+		int half = nodeSize / 2;
+		if (seam != head && seam.count < half) {
+			if (seam.count + first.count <= nodeSize) {
+				// full merge
+				System.arraycopy(first.data, 0, seam.data, seam.count, first.count);
+				seam.count += first.count;
+				seam.next = first.next;
+				first.next.previous = seam;
+			} else {
+				// move just enough to bring the seam node up to half
+				int moved = half - seam.count;
+				System.arraycopy(first.data, 0, seam.data, seam.count, moved);
+				seam.count = half;
+				System.arraycopy(first.data, moved, first.data, 0, first.count - moved);
+				Arrays.fill(first.data, first.count - moved, first.count, null);
+				first.count -= moved;
+			}
+		}
+		return this;
+	}
+
 
 	/**
 	 * Checks if the list contains a specific element by searching through the list for duplicates.
@@ -151,11 +421,12 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			return false;
 		Node temporary = head.next;
 		while(temporary != tail) {
+			E[] items = load(temporary);
 			for(int i=0;i<temporary.count;i++) {
-				if(temporary.data[i].equals(element))
+				if(items[i].equals(element))
 					return true;
-				temporary = temporary.next;
 			}
+			temporary = temporary.next;
 		}
 		return false;
 	}
@@ -166,16 +437,24 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 * @param pos The position where the element should be added.
 	 * @param element The element to add to the list.
 	 * @throws IndexOutOfBoundsException If 'pos' is out of bounds.
+	 * @throws NullPointerException If 'element' is null.
 	 */
 	@Override
 	public void add(int pos, E element) {
 	    // Check if 'pos' is within bounds; otherwise, throw an exception.
 	    if (pos < 0 || pos > size)
 	        throw new IndexOutOfBoundsException();
+	    if (element == null)
+	        throw new NullPointerException();
 
 	    // If the list is empty, create a new node and add 'element' to offset 0.
-	    if (head.next == tail)
-	        add(element);
+	    if (head.next == tail) {
+	        appendItem(element);
+	        // Recorded only once made, since in tiered mode loading or creating a node can throw.
+	        if (changeLog != null)
+	            changeLog.recordInsert(pos, element);
+	        return;
+	    }
 
 	    NodeInfo nodeInfo = find(pos);
 	    Node temporary = nodeInfo.node;
@@ -186,18 +465,23 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	        // If 'temporary' has a predecessor with fewer than 'nodeSize' elements (and is not the 'head'),
 	        // add 'element' to the predecessor.
 	        if (temporary.previous.count < nodeSize && temporary.previous != head) {
+	            loadForWrite(temporary.previous);
 	            temporary.previous.addItem(element);
 	            size++;
+	            if (changeLog != null)
+	                changeLog.recordInsert(pos, element);
 	            return;
 	        }
 	        // If 'temporary' is the 'tail' node and its predecessor has 'nodeSize' elements, create a new node
 	        // and add 'element' at offset 0.
 	        else if (temporary == tail) {
-	            add(element);
-	            size++;
+	            appendItem(element);
+	            if (changeLog != null)
+	                changeLog.recordInsert(pos, element);
 	            return;
 	        }
 	    }
+	    loadForWrite(temporary);
 	    // If there is space in node 'temporary', add 'element' at 'offset', shifting array elements as necessary.
 	    if (temporary.count < nodeSize) {
 	        temporary.addItem(offset, element);
@@ -231,6 +515,8 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	    }
 	    // Increase the size of the list since an element has been added.
 	    size++;
+	    if (changeLog != null)
+	        changeLog.recordInsert(pos, element);
 	}
 
 
@@ -255,18 +541,19 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	@Override
 	public E remove(int position) {
 		
-		if (position < 0 || position > size)
+		if (position < 0 || position >= size)
 			throw new IndexOutOfBoundsException();
 		NodeInfo nodeInfo = find(position);
 		Node temporary = nodeInfo.node;
 		int offset = nodeInfo.offset;
-		E nodeValue = temporary.data[offset];
+		E nodeValue = loadForWrite(temporary)[offset];
 
 		
 		if (temporary.next == tail && temporary.count == 1) {
 			Node predecessor = temporary.previous;
 			predecessor.next = temporary.next;
 			temporary.next.previous = predecessor;
+			release(temporary);
 			temporary = null;
 		}
 		
@@ -275,8 +562,10 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		}
 		
 		else {
-			temporary.removeItem(offset);
+			// Load the successor first, so a page that cannot be read or written leaves the list unchanged.
 			Node succesor = temporary.next;
+			loadForWrite(succesor);
+			temporary.removeItem(offset);
 			
 			
 			if (succesor.count > nodeSize / 2) {
@@ -290,14 +579,41 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 				}
 				temporary.next = succesor.next;
 				succesor.next.previous = temporary;
+				release(succesor);
 				succesor = null;
 			}
 		}
 		// decrease the size of list, since item has been removed
 		size--;
+		if (changeLog != null)
+			changeLog.recordRemove(position);
 		return nodeValue;
 	}
 
+	/**
+	 * Replaces the element at a specific position without going through an iterator.
+	 *
+	 * @param position The position of the element to replace.
+	 * @param element The new element.
+	 * @return The element previously at 'position'.
+	 * @throws IndexOutOfBoundsException If 'position' is out of bounds.
+	 * @throws NullPointerException If 'element' is null.
+	 */
+
+	E replace(int position, E element) {
+		if (position < 0 || position >= size)
+			throw new IndexOutOfBoundsException();
+		if (element == null)
+			throw new NullPointerException();
+		NodeInfo nodeInfo = find(position);
+		E[] items = loadForWrite(nodeInfo.node);
+		E previous = items[nodeInfo.offset];
+		items[nodeInfo.offset] = element;
+		if (changeLog != null)
+			changeLog.recordSet(position, element);
+		return previous;
+	}
+
 	/**
 	 * Sorts all elements in the "stout" list in non-decreasing order. To achieve this, follow these steps:
 	 * 1. Traverse the list and copy its elements into an array while deleting every visited node along the way.
@@ -314,8 +630,9 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		int tempIndex = 0;
 		Node temporary = head.next;
 		while (temporary != tail) {
+			E[] items = load(temporary);
 			for (int i = 0; i < temporary.count; i++) {
-				sortDataList[tempIndex] = temporary.data[i];
+				sortDataList[tempIndex] = items[i];
 				tempIndex++;
 			}
 			temporary = temporary.next;
@@ -323,12 +640,16 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 
 		head.next = tail;
 		tail.previous = head;
+		if (cache != null)
+			cache.clear();
 
 		insertionSort(sortDataList, new ElementComparator());
 		size = 0;
 		for (int i = 0; i < sortDataList.length; i++) {
-			add(sortDataList[i]);
+			appendItem(sortDataList[i]);
 		}
+		if (changeLog != null)
+			changeLog.recordSort(false);
 
 	}
 
@@ -345,8 +666,9 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		int tempIndex = 0;
 		Node temporary = head.next;
 		while (temporary != tail) {
+			E[] items = load(temporary);
 			for (int i = 0; i < temporary.count; i++) {
-				rsortDataList[tempIndex] = temporary.data[i];
+				rsortDataList[tempIndex] = items[i];
 				tempIndex++;
 			}
 			temporary = temporary.next;
@@ -354,12 +676,349 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 
 		head.next = tail;
 		tail.previous = head;
+		if (cache != null)
+			cache.clear();
 
 		bubbleSort(rsortDataList);
 		size = 0;
 		for (int i = 0; i < rsortDataList.length; i++) {
-			add(rsortDataList[i]);
+			appendItem(rsortDataList[i]);
 		}
+		if (changeLog != null)
+			changeLog.recordSort(true);
+	}
+
+	/**
+	 * Removes every element accepted by a filter in one pass over the nodes.
+	 *
+	 * @param filter The test that selects the elements to remove.
+	 * @return 'true' if any element was removed.
+	 */
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		if (filter == null)
+			throw new NullPointerException();
+		return compact(filter);
+	}
+
+	/**
+	 * Removes every element that is also in the given collection in one pass over the nodes.
+	 * Membership is tested with the collection itself if it is a Set, and with a HashSet copy of it otherwise.
+	 *
+	 * @param c The elements to remove.
+	 * @return 'true' if any element was removed.
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		Set<?> lookup = c instanceof Set ? (Set<?>) c : new HashSet<>(c);
+		return compact(lookup::contains);
+	}
+
+	/**
+	 * Removes every element that is not in the given collection in one pass over the nodes.
+	 * Membership is tested with the collection itself if it is a Set, and with a HashSet copy of it otherwise.
+	 *
+	 * @param c The elements to keep.
+	 * @return 'true' if any element was removed.
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		Set<?> lookup = c instanceof Set ? (Set<?>) c : new HashSet<>(c);
+		return compact(item -> !lookup.contains(item));
+	}
+
+	/**
+	 * Walks the nodes once, dropping the elements accepted by 'doomed' and packing the survivors forward into the
+	 * same nodes, so that afterwards every node but the last is full. Nodes left empty are unlinked.
+	 * If 'doomed' throws, the remaining elements are kept, the list is left consistent, and the exception is rethrown.
+	 *
+	 * @param doomed The test that selects the elements to remove.
+	 * @return 'true' if any element was removed.
+	 */
+
+	private boolean compact(Predicate<? super E> doomed) {
+		Node write = head.next;
+		int writeOffset = 0;
+		int removed = 0;
+		int index = 0;
+		RuntimeException failure = null;
+
+		Node read = head.next;
+		while (read != tail) {
+			// 'write' can catch up with 'read', so take what is needed from it before overwriting.
+			Node following = read.next;
+			int count = read.count;
+			E[] items = load(read);
+			E[] target = loadForWrite(write);
+			for (int i = 0; i < count; i++, index++) {
+				E item = items[i];
+				if (failure == null) {
+					try {
+						if (doomed.test(item)) {
+							if (changeLog != null)
+								changeLog.recordRemove(index - removed);
+							removed++;
+							continue;
+						}
+					} catch (RuntimeException e) {
+						failure = e;
+					}
+				}
+
+				if (writeOffset == nodeSize) {
+					write.count = nodeSize;
+					write = write.next;
+					writeOffset = 0;
+					target = loadForWrite(write);
+				}
+				target[writeOffset++] = item;
+			}
+			read = following;
+		}
+
+		// Survivors were packed forward even if nothing was removed, so the chain is always cut after the last one.
+		if (writeOffset == 0) {
+			// nothing survived
+			write = head;
+		} else {
+			write.count = writeOffset;
+			Arrays.fill(loadForWrite(write), writeOffset, nodeSize, null);
+		}
+		for (Node dropped = write.next; dropped != tail; dropped = dropped.next) {
+			release(dropped);
+		}
+		write.next = tail;
+		tail.previous = write;
+		size -= removed;
+
+		if (failure != null)
+			throw failure;
+		return removed > 0;
+	}
+
+	/**
+	 * Copies the elements into a new array, one node at a time.
+	 *
+	 * @return An array holding the elements in list order.
+	 */
+	@Override
+	public Object[] toArray() {
+		Object[] result = new Object[size];
+		copyNodes(result, 0);
+		return result;
+	}
+
+	/**
+	 * Copies the elements into the given array if they fit, or into a new array of the same component type otherwise.
+	 * If the given array is longer than the list, the slot after the last element is set to null.
+	 *
+	 * @param array The array to fill, if it is long enough.
+	 * @return The array holding the elements in list order.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] array) {
+		// Unchecked warning unavoidable.
+		if (array.length < size)
+			array = (T[]) Array.newInstance(array.getClass().getComponentType(), size);
+		copyNodes(array, 0);
+		if (array.length > size)
+			array[size] = null;
+		return array;
+	}
+
+	/**
+	 * Copies the elements into an existing array starting at a given position.
+	 *
+	 * @param dest The array to copy into.
+	 * @param destPos The index in 'dest' that receives the first element.
+	 * @throws IndexOutOfBoundsException If the elements do not fit in 'dest' from 'destPos' on.
+	 */
+
+	public void copyInto(E[] dest, int destPos) {
+		if (destPos < 0 || destPos > dest.length - size)
+			throw new IndexOutOfBoundsException();
+		copyNodes(dest, destPos);
+	}
+
+	/**
+	 * Passes each element to an action, reading the node arrays directly instead of copying the list.
+	 *
+	 * @param action The action to perform on each element.
+	 */
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		if (action == null)
+			throw new NullPointerException();
+		Node temporary = head.next;
+		while (temporary != tail) {
+			E[] items = load(temporary);
+			for (int i = 0; i < temporary.count; i++) {
+				action.accept(items[i]);
+			}
+			temporary = temporary.next;
+		}
+	}
+
+	/**
+	 * Moves every element into a collection, one node at a time, unlinking each node as soon as its elements have been
+	 * handed over so that memory is released during the transfer. Elements are added one by one, so if the collection
+	 * throws, exactly the elements it accepted have left the list; the rest stay, repacked into nodes.
+	 *
+	 * @param target The collection that receives the elements.
+	 * @return The number of elements moved.
+	 * @throws IllegalArgumentException If 'target' is this list.
+	 */
+
+	public int drainTo(Collection<? super E> target) {
+		if (target == this)
+			throw new IllegalArgumentException();
+
+		int drained = 0;
+		Node temporary = head.next;
+		while (temporary != tail) {
+			E[] items = load(temporary);
+			int moved = 0;
+			try {
+				while (moved < temporary.count) {
+					target.add(items[moved]);
+					moved++;
+				}
+			} finally {
+				if (moved < temporary.count)
+					keepUntransferred(temporary, moved);
+			}
+
+			Node following = temporary.next;
+			head.next = following;
+			following.previous = head;
+			size -= moved;
+			drained += moved;
+			recordDrained(moved);
+			release(temporary);
+			temporary.data = null;
+			temporary = following;
+		}
+		return drained;
+	}
+
+	/**
+	 * Called when the target of 'drainTo' throws partway through the first node: drops the 'moved' elements it
+	 * accepted from that node and repacks the list, since the node may now be less than half full.
+	 *
+	 * @param first The node that was being transferred.
+	 * @param moved The number of its elements the target accepted.
+	 */
+
+	private void keepUntransferred(Node first, int moved) {
+		if (moved == 0)
+			return;
+		E[] items = loadForWrite(first);
+		System.arraycopy(items, moved, items, 0, first.count - moved);
+		Arrays.fill(items, first.count - moved, first.count, null);
+		first.count -= moved;
+		size -= moved;
+		recordDrained(moved);
+		compact(item -> false);
+	}
+
+	/**
+	 * Records elements drained from the front of the list as removals at position 0.
+	 *
+	 * @param count The number of elements drained.
+	 */
+
+	private void recordDrained(int count) {
+		if (changeLog != null) {
+			for (int i = 0; i < count; i++) {
+				changeLog.recordRemove(0);
+			}
+		}
+	}
+
+	/**
+	 * Copies 'data[0..count)' of every node into an array with 'System.arraycopy'.
+	 *
+	 * @param dest The array to copy into; it must have room for all elements from 'destPos' on.
+	 * @param destPos The index that receives the first element.
+	 */
+
+	private void copyNodes(Object[] dest, int destPos) {
+		Node temporary = head.next;
+		while (temporary != tail) {
+			System.arraycopy(load(temporary), 0, dest, destPos, temporary.count);
+			destPos += temporary.count;
+			temporary = temporary.next;
+		}
+	}
+
+	/**
+	 * Returns the index of the first occurrence of an element, searching the nodes in parallel on the common fork-join pool.
+	 * The list must not be modified while the search runs.
+	 *
+	 * @param element The element to search for.
+	 * @return The index of the first occurrence, or -1 if the list does not contain the element.
+	 */
+
+	public int parallelIndexOf(Object element) {
+		return parallelIndexOf(element, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns the index of the first occurrence of an element, searching the nodes in parallel on the given pool.
+	 * Chunks that start after a match already found are skipped.
+	 *
+	 * @param element The element to search for.
+	 * @param pool The pool that runs the search.
+	 * @return The index of the first occurrence, or -1 if the list does not contain the element.
+	 */
+
+	public int parallelIndexOf(Object element, ForkJoinPool pool) {
+		if (element == null || size == 0)
+			return -1;
+		NodeRange range = new NodeRange();
+		AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+		pool.invoke(new IndexOfTask(range, 0, range.nodes.size(), element, first));
+		return first.get() == Integer.MAX_VALUE ? -1 : first.get();
+	}
+
+	/**
+	 * Checks if the list contains an element, searching the nodes in parallel on the common fork-join pool.
+	 *
+	 * @param element The element to search for.
+	 * @return 'true' if the list contains the element, 'false' otherwise.
+	 */
+
+	public boolean parallelContains(Object element) {
+		return parallelIndexOf(element) >= 0;
+	}
+
+	/**
+	 * Returns the indices of all elements accepted by a filter, testing the nodes in parallel on the common fork-join pool.
+	 *
+	 * @param filter The test applied to each element.
+	 * @return The indices of the accepted elements in increasing order.
+	 */
+
+	public int[] parallelFindAll(Predicate<? super E> filter) {
+		return parallelFindAll(filter, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns the indices of all elements accepted by a filter, testing the nodes in parallel on the given pool.
+	 *
+	 * @param filter The test applied to each element.
+	 * @param pool The pool that runs the search.
+	 * @return The indices of the accepted elements in increasing order.
+	 */
+
+	public int[] parallelFindAll(Predicate<? super E> filter, ForkJoinPool pool) {
+		if (filter == null)
+			throw new NullPointerException();
+		if (size == 0)
+			return new int[0];
+		NodeRange range = new NodeRange();
+		return pool.invoke(new FindAllTask(range, 0, range.nodes.size(), filter));
 	}
 
 	@Override
@@ -406,7 +1065,8 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		Node current = head.next;
 		while (current != tail) {
 			sb.append('(');
-			E data = current.data[0];
+			E[] items = load(current);
+			E data = items[0];
 			if (data == null) {
 				sb.append("-");
 			} else {
@@ -420,7 +1080,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 
 			for (int i = 1; i < nodeSize; ++i) {
 				sb.append(", ");
-				data = current.data[i];
+				data = items[i];
 				if (data == null) {
 					sb.append("-");
 				} else {
@@ -453,7 +1113,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 
 	private class Node {
 		/**
-		 * Array of actual data elements.
+		 * Array of actual data elements. Null while the node is evicted to the page file in tiered mode.
 		 */
 		// Unchecked warning unavoidable.
 		public E[] data = (E[]) new Comparable[nodeSize];
@@ -476,6 +1136,30 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		public int count;
 
+		/**
+		 * In tiered mode, the offset of this node's page in the page file, or -1 if it has never been written.
+		 */
+		public long page = -1;
+
+		/**
+		 * In tiered mode, the length of the encoded elements in the page, and the room the page has for them.
+		 */
+		public int pageLength;
+		public int pageCapacity;
+
+		/**
+		 * In tiered mode, whether the elements have changed since the page was last written.
+		 */
+		public boolean dirty;
+
+		/**
+		 * Creates an empty node; in tiered mode it starts out resident in the cache.
+		 */
+		Node() {
+			if (cache != null)
+				cache.admit(this);
+		}
+
 		/**
  * Inserts an item into this node at the first available offset.
  * Precondition: The current count must be less than the nodeSize.
@@ -526,6 +1210,263 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		}
 	}
 
+	/**
+	 * Returns the elements of a node for reading, first reading them back from the page file if it is evicted.
+	 *
+	 * @param node The node whose elements are needed.
+	 * @return The node's data array.
+	 */
+
+	private E[] load(Node node) {
+		return cache == null ? node.data : cache.load(node, false);
+	}
+
+	/**
+	 * Returns the elements of a node for modification, first reading them back if evicted, and marks the node as
+	 * needing to be written again when it is next evicted.
+	 *
+	 * @param node The node whose elements are needed.
+	 * @return The node's data array.
+	 */
+
+	private E[] loadForWrite(Node node) {
+		return cache == null ? node.data : cache.load(node, true);
+	}
+
+	/**
+	 * Forgets a node that has been unlinked from the list.
+	 *
+	 * @param node The unlinked node.
+	 */
+
+	private void release(Node node) {
+		if (cache != null)
+			cache.discard(node);
+	}
+
+	/**
+	 * Clears a node's tiered-mode page fields, so its elements are written to a fresh page when it is next evicted.
+	 *
+	 * @param node The node to reset.
+	 */
+
+	private void forgetPage(Node node) {
+		node.page = -1;
+		node.pageLength = 0;
+		node.pageCapacity = 0;
+		node.dirty = false;
+	}
+
+	/**
+	 * Counters of the payload cache at one point in time.
+	 */
+	public static final class CacheStats {
+		public final long hits;
+		public final long misses;
+		public final long evictions;
+		public final int residentNodes;
+
+		public CacheStats(long hits, long misses, long evictions, int residentNodes) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.residentNodes = residentNodes;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", resident=" + residentNodes;
+		}
+	}
+
+	/**
+	 * Keeps the elements of at most 'maxResident' nodes in memory, in least-recently-used order, and writes the
+	 * elements of the others to a page file. Methods are synchronized so that parallel searches can fault nodes in.
+	 */
+	private class PayloadCache {
+		private final RandomAccessFile file;
+		private final ElementCodec<E> codec;
+		private int maxResident;
+
+		/**
+		 * Resident nodes, least recently used first.
+		 */
+		private final LinkedHashMap<Node, Boolean> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+		/**
+		 * Pages no node uses any more, by capacity, so they can be handed out again before the file grows.
+		 */
+		private final TreeMap<Integer, ArrayDeque<Long>> freePages = new TreeMap<>();
+
+		private long hits;
+		private long misses;
+		private long evictions;
+
+		public PayloadCache(Path pageFile, int maxResident, ElementCodec<E> codec) throws IOException {
+			this.file = new RandomAccessFile(pageFile.toFile(), "rw");
+			this.file.setLength(0);
+			this.codec = codec;
+			this.maxResident = maxResident;
+		}
+
+		/**
+		 * Makes a node resident, reading its page if needed, and marks it most recently used.
+		 */
+		public synchronized E[] load(Node node, boolean forWrite) {
+			if (resident.get(node) != null) {
+				hits++;
+			} else {
+				misses++;
+				node.data = readPage(node);
+				resident.put(node, Boolean.TRUE);
+				trim();
+			}
+			if (forWrite)
+				node.dirty = true;
+			return node.data;
+		}
+
+		/**
+		 * Registers a node whose elements are in memory and not yet in the page file.
+		 */
+		public synchronized void admit(Node node) {
+			node.dirty = true;
+			resident.put(node, Boolean.TRUE);
+			try {
+				trim();
+			} catch (RuntimeException e) {
+				// The node is never linked, so it must not linger in the cache either.
+				resident.remove(node);
+				throw e;
+			}
+		}
+
+		/**
+		 * Forgets an unlinked node and makes its page available for reuse.
+		 */
+		public synchronized void discard(Node node) {
+			resident.remove(node);
+			releasePage(node);
+		}
+
+		/**
+		 * Forgets every node after the list has dropped all of them, and empties the page file.
+		 */
+		public synchronized void clear() {
+			resident.clear();
+			freePages.clear();
+			try {
+				file.setLength(0);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Stops evicting, so that every node can be brought back into memory.
+		 */
+		public synchronized void pinAll() {
+			maxResident = Integer.MAX_VALUE;
+		}
+
+		public synchronized CacheStats stats() {
+			return new CacheStats(hits, misses, evictions, resident.size());
+		}
+
+		public synchronized void close() throws IOException {
+			file.close();
+		}
+
+		/**
+		 * Evicts least recently used nodes until the budget is met. A node whose page cannot be written stays resident.
+		 */
+		private void trim() {
+			Iterator<Node> eldest = resident.keySet().iterator();
+			while (resident.size() > maxResident) {
+				Node victim = eldest.next();
+				if (victim.dirty || victim.page < 0)
+					writePage(victim);
+				eldest.remove();
+				victim.data = null;
+				victim.dirty = false;
+				evictions++;
+			}
+		}
+
+		/**
+		 * Writes the elements of a node to its page, moving the page to the end of the file if it no longer fits.
+		 */
+		private void writePage(Node node) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(bytes);
+				for (int i = 0; i < node.count; i++) {
+					codec.write(out, node.data[i]);
+				}
+				out.flush();
+
+				if (node.page < 0 || bytes.size() > node.pageCapacity) {
+					releasePage(node);
+					allocatePage(node, bytes.size());
+				}
+				node.pageLength = bytes.size();
+				file.seek(node.page);
+				file.write(bytes.toByteArray());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Gives a node the smallest free page that can hold 'length' bytes, or a new page at the end of the file.
+		 */
+		private void allocatePage(Node node, int length) throws IOException {
+			Map.Entry<Integer, ArrayDeque<Long>> fit = freePages.ceilingEntry(length);
+			if (fit == null) {
+				// Claim the space at once, so a write that fails cannot leave it to be handed out again.
+				long end = file.length();
+				file.setLength(end + length);
+				node.page = end;
+				node.pageCapacity = length;
+				return;
+			}
+			node.page = fit.getValue().pop();
+			node.pageCapacity = fit.getKey();
+			if (fit.getValue().isEmpty())
+				freePages.remove(fit.getKey());
+		}
+
+		/**
+		 * Returns a node's page, if it has one, to the free pages and clears the node's page fields.
+		 */
+		private void releasePage(Node node) {
+			if (node.page >= 0)
+				freePages.computeIfAbsent(node.pageCapacity, capacity -> new ArrayDeque<>()).push(node.page);
+			forgetPage(node);
+		}
+
+		/**
+		 * Reads the elements of a node back from its page.
+		 */
+		private E[] readPage(Node node) {
+			try {
+				byte[] bytes = new byte[node.pageLength];
+				file.seek(node.page);
+				file.readFully(bytes);
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+				// Unchecked warning unavoidable.
+				@SuppressWarnings({ "unchecked", "rawtypes" })
+				E[] items = (E[]) new Comparable[nodeSize];
+				for (int i = 0; i < node.count; i++) {
+					items[i] = codec.read(in);
+				}
+				return items;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
 	/**
 	 * A helper class that represents a specific position within the list.
 	 */
@@ -543,7 +1484,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 * A helper method used to find a specific item in the list.
 	 *
 	 * @param position The position of the item for which information is needed.
-	 * @return The NodeInfo of the item at the specified position in the list.
+	 * @return The NodeInfo of the item at the specified position in the list, or the tail at offset 0 if 'pos' equals the size.
 	 */
 
 	private NodeInfo find(int pos) {
@@ -560,7 +1501,134 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			return nodeInfo;
 
 		}
-		return null;
+		return new NodeInfo(tail, 0);
+	}
+
+	/**
+	 * A snapshot of the node chain taken before a parallel search: the nodes in order,
+	 * and for each node the global index of its first element.
+	 */
+	private class NodeRange {
+		public List<Node> nodes = new ArrayList<>();
+		public int[] starts;
+
+		/**
+		 * Walks the chain once, collecting the nodes and their starting indices.
+		 */
+		public NodeRange() {
+			Node temporary = head.next;
+			while (temporary != tail) {
+				nodes.add(temporary);
+				temporary = temporary.next;
+			}
+
+			starts = new int[nodes.size()];
+			int start = 0;
+			for (int i = 0; i < starts.length; i++) {
+				starts[i] = start;
+				start += nodes.get(i).count;
+			}
+		}
+
+		/**
+		 * @return the number of nodes a single task scans without splitting further
+		 */
+		public int grain() {
+			return Math.max(1, PARALLEL_GRAIN / nodeSize);
+		}
+	}
+
+	/**
+	 * Searches the nodes 'from' to 'to' of a NodeRange for an element and records the smallest matching index.
+	 */
+	@SuppressWarnings("serial")
+	private class IndexOfTask extends RecursiveAction {
+		private final NodeRange range;
+		private final int from;
+		private final int to;
+		private final Object element;
+		private final AtomicInteger first;
+
+		public IndexOfTask(NodeRange range, int from, int to, Object element, AtomicInteger first) {
+			this.range = range;
+			this.from = from;
+			this.to = to;
+			this.element = element;
+			this.first = first;
+		}
+
+		@Override
+		protected void compute() {
+			// A match before this chunk has already been found.
+			if (range.starts[from] >= first.get())
+				return;
+
+			if (to - from <= range.grain()) {
+				for (int n = from; n < to; n++) {
+					Node temporary = range.nodes.get(n);
+					E[] items = load(temporary);
+					for (int i = 0; i < temporary.count; i++) {
+						if (element.equals(items[i])) {
+							int index = range.starts[n] + i;
+							first.accumulateAndGet(index, Math::min);
+							return;
+						}
+					}
+					if (range.starts[n] >= first.get())
+						return;
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new IndexOfTask(range, from, middle, element, first),
+					new IndexOfTask(range, middle, to, element, first));
+		}
+	}
+
+	/**
+	 * Collects the indices of the elements accepted by a filter in the nodes 'from' to 'to' of a NodeRange.
+	 */
+	@SuppressWarnings("serial")
+	private class FindAllTask extends RecursiveTask<int[]> {
+		private final NodeRange range;
+		private final int from;
+		private final int to;
+		private final Predicate<? super E> filter;
+
+		public FindAllTask(NodeRange range, int from, int to, Predicate<? super E> filter) {
+			this.range = range;
+			this.from = from;
+			this.to = to;
+			this.filter = filter;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (to - from <= range.grain()) {
+				int[] found = new int[range.starts[to - 1] + range.nodes.get(to - 1).count - range.starts[from]];
+				int length = 0;
+				for (int n = from; n < to; n++) {
+					Node temporary = range.nodes.get(n);
+					E[] items = load(temporary);
+					for (int i = 0; i < temporary.count; i++) {
+						if (filter.test(items[i]))
+							found[length++] = range.starts[n] + i;
+					}
+				}
+				return Arrays.copyOf(found, length);
+			}
+
+			int middle = (from + to) >>> 1;
+			FindAllTask right = new FindAllTask(range, middle, to, filter);
+			right.fork();
+			int[] leftFound = new FindAllTask(range, from, middle, filter).compute();
+			int[] rightFound = right.join();
+
+			int[] found = Arrays.copyOf(leftFound, leftFound.length + rightFound.length);
+			System.arraycopy(rightFound, 0, found, leftFound.length, rightFound.length);
+			return found;
+		}
 	}
 
 	/**
@@ -577,10 +1645,26 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		int currentPosition;
 		
 		/**
-		 * Represents the data structure of the iterator in an array format.
+		 * Node of the cursor. The element 'next()' would return is at 'offset' in it,
+		 * or at the start of the following node if 'offset' equals its count.
+		 */
+		private Node node;
+
+		/**
+		 * Offset of the cursor within 'node'.
+		 */
+		private int offset;
+
+		/**
+		 * The data array of 'node' as last loaded, so that stepping within a node does not go back to the cache.
 		 */
+		private E[] items;
 
-		public E[] dataList;
+		/**
+		 * Node and offset of the element last returned by 'next()' or 'previous()'.
+		 */
+		private Node lastNode;
+		private int lastOffset;
 		
 		/**
 		 * Keeps track of the last action performed by the program, primarily used for the 'remove()' and 'set()' methods to identify the item to remove or modify.
@@ -607,28 +1691,23 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 
 		public StoutListIterator(int position) {
-			
+			if (position < 0 || position > size)
+				throw new IndexOutOfBoundsException();
 			currentPosition = position;
 			lastAction = -1;
 			setup();
 		}
 
 		/**
-		 * Converts the data from the StoutList into an array format and stores it in 'dataList'.
+		 * Places the cursor before the element at 'currentPosition'. Only node counts are read on the way, so in tiered
+		 * mode at most the node under the cursor is brought into memory.
 		 */
 
 		private void setup() {
-			dataList = (E[]) new Comparable[size];
-
-			int tempIndex = 0;
-			Node temporary = head.next;
-			while (temporary != tail) {
-				for (int i = 0; i < temporary.count; i++) {
-					dataList[tempIndex] = temporary.data[i];
-					tempIndex++;
-				}
-				temporary = temporary.next;
-			}
+			NodeInfo nodeInfo = find(currentPosition);
+			node = nodeInfo.node;
+			offset = nodeInfo.offset;
+			items = node == tail ? null : load(node);
 		}
 
 		/**
@@ -653,7 +1732,15 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			if (!hasNext())
 				throw new NoSuchElementException();
 			lastAction = LAST_ACTION_NEXT;
-			return dataList[currentPosition++];
+			if (offset == node.count) {
+				node = node.next;
+				offset = 0;
+				items = load(node);
+			}
+			lastNode = node;
+			lastOffset = offset;
+			currentPosition++;
+			return items[offset++];
 		}
 
 		/**
@@ -667,11 +1754,11 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			
 			if (lastAction == LAST_ACTION_NEXT) {
 				StoutList.this.remove(currentPosition - 1);
-				setup();
 				lastAction = -1;
 				currentPosition--;
 				if (currentPosition < 0)
 					currentPosition = 0;
+				setup();
 			} else if (lastAction == LAST_ACTION_PREV) {
 				StoutList.this.remove(currentPosition);
 				setup();
@@ -720,8 +1807,16 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			if (!hasPrevious())
 				throw new NoSuchElementException();
 			lastAction = LAST_ACTION_PREV;
+			if (offset == 0) {
+				node = node.previous;
+				offset = node.count;
+				items = load(node);
+			}
+			offset--;
+			lastNode = node;
+			lastOffset = offset;
 			currentPosition--;
-			return dataList[currentPosition];
+			return items[offset];
 		}
 
 		/**
@@ -737,22 +1832,23 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 * Replaces the element currently pointed to with the specified element.
 		 *
 		 * @param elementToReplace The element that will replace the current element.
+		 * @throws NullPointerException If 'elementToReplace' is null.
 		 */
 
 		@Override
 		public void set(E elementToReplace) {
 			
-			if (lastAction == LAST_ACTION_NEXT) {
-				NodeInfo nodeInfo = find(currentPosition - 1);
-				nodeInfo.node.data[nodeInfo.offset] = elementToReplace;
-				dataList[currentPosition - 1] = elementToReplace;
-			} else if (lastAction == LAST_ACTION_PREV) {
-				NodeInfo nodeInfo = find(currentPosition);
-				nodeInfo.node.data[nodeInfo.offset] = elementToReplace;
-				dataList[currentPosition] = elementToReplace;
-			} else {
+			if (lastAction != LAST_ACTION_NEXT && lastAction != LAST_ACTION_PREV)
 				throw new IllegalStateException();
-			}
+			if (elementToReplace == null)
+				throw new NullPointerException();
+
+			E[] replaced = loadForWrite(lastNode);
+			replaced[lastOffset] = elementToReplace;
+			if (lastNode == node)
+				items = replaced;
+			if (changeLog != null)
+				changeLog.recordSet(lastAction == LAST_ACTION_NEXT ? currentPosition - 1 : currentPosition, elementToReplace);
 
 		}
 
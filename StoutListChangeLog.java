@@ -0,0 +1,225 @@
+package edu.iastate.cs228.hw3;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An append-only log of the structural changes made to a StoutList.
+ * Once attached with 'StoutList.setChangeLog()', the list records every insert, remove, replacement and sort,
+ * each with the next sequence number. A replica that has applied everything up to some sequence number only needs
+ * the records after it, which 'since()' returns and 'writeTo()' encodes; see StoutListDeltaApplier for the other end.
+ *
+ * @param <E> The element type of the list.
+ */
+
+public class StoutListChangeLog<E> {
+
+	/**
+	 * The kinds of change that are recorded.
+	 */
+	public enum Kind {
+		/** An element was inserted at a position. */
+		INSERT,
+		/** The element at a position was removed. */
+		REMOVE,
+		/** The element at a position was replaced. */
+		SET,
+		/** The list was sorted in non-decreasing order. */
+		SORT,
+		/** The list was sorted in non-increasing order. */
+		SORT_REVERSE
+	}
+
+	/**
+	 * One recorded change.
+	 *
+	 * @param <E> The element type of the list.
+	 */
+	public static final class Record<E> {
+		public final long sequence;
+		public final Kind kind;
+		public final int position;
+		public final E element;
+
+		public Record(long sequence, Kind kind, int position, E element) {
+			this.sequence = sequence;
+			this.kind = kind;
+			this.position = position;
+			this.element = element;
+		}
+
+		@Override
+		public String toString() {
+			return sequence + " " + kind + (kind == Kind.SORT || kind == Kind.SORT_REVERSE ? "" : " " + position)
+					+ (element == null ? "" : " " + element);
+		}
+	}
+
+	/**
+	 * Records not yet discarded by 'truncate()', in sequence order with no gaps.
+	 */
+	private final List<Record<E>> records = new ArrayList<>();
+
+	/**
+	 * Sequence number of the last record appended; 0 before the first one.
+	 */
+	private long lastSequence;
+
+	/**
+	 * @return the sequence number of the last recorded change, or 0 if nothing has been recorded
+	 */
+	public synchronized long lastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Returns the retained records with a sequence number greater than 'sequence'.
+	 *
+	 * @param sequence The last sequence number the caller already has.
+	 * @return The later records in order.
+	 * @throws IllegalStateException If some of the requested records were already discarded by 'truncate()'.
+	 */
+	public synchronized List<Record<E>> since(long sequence) {
+		long first = lastSequence - records.size() + 1;
+		if (sequence + 1 < first)
+			throw new IllegalStateException();
+		if (sequence >= lastSequence)
+			return Collections.emptyList();
+		int from = (int) (sequence + 1 - first);
+		return new ArrayList<>(records.subList(from, records.size()));
+	}
+
+	/**
+	 * Discards the records up to and including 'sequence', once every replica has applied them.
+	 *
+	 * @param sequence The last sequence number to discard.
+	 */
+	public synchronized void truncate(long sequence) {
+		long first = lastSequence - records.size() + 1;
+		int count = (int) Math.min(records.size(), Math.max(0, sequence - first + 1));
+		records.subList(0, count).clear();
+	}
+
+	/**
+	 * Writes the records after 'sequence' to a stream in the compact binary encoding read by StoutListDeltaApplier.
+	 *
+	 * @param out The stream to write to; it is flushed but not closed.
+	 * @param sequence The last sequence number the receiver already has.
+	 * @param codec Writes the elements.
+	 * @return The number of records written.
+	 * @throws IOException If the stream cannot be written.
+	 */
+	public int writeTo(OutputStream out, long sequence, ElementCodec<? super E> codec) throws IOException {
+		List<Record<E>> pending = since(sequence);
+		DataOutputStream data = new DataOutputStream(out);
+		for (Record<E> record : pending) {
+			write(data, record, codec);
+		}
+		data.flush();
+		return pending.size();
+	}
+
+	/**
+	 * Records an insert at a position.
+	 */
+	synchronized void recordInsert(int position, E element) {
+		append(Kind.INSERT, position, element);
+	}
+
+	/**
+	 * Records a removal at a position.
+	 */
+	synchronized void recordRemove(int position) {
+		append(Kind.REMOVE, position, null);
+	}
+
+	/**
+	 * Records a replacement at a position.
+	 */
+	synchronized void recordSet(int position, E element) {
+		append(Kind.SET, position, element);
+	}
+
+	/**
+	 * Records a sort in either direction.
+	 */
+	synchronized void recordSort(boolean reverse) {
+		append(reverse ? Kind.SORT_REVERSE : Kind.SORT, 0, null);
+	}
+
+	private void append(Kind kind, int position, E element) {
+		records.add(new Record<>(++lastSequence, kind, position, element));
+	}
+
+	/**
+	 * Encodes one record: the kind as a byte, the sequence number and the position as variable-length integers,
+	 * and for INSERT and SET the element.
+	 *
+	 * @param out The stream to write to.
+	 * @param record The record to write.
+	 * @param codec Writes the element.
+	 * @throws IOException If the stream cannot be written.
+	 */
+	static <E> void write(DataOutput out, Record<E> record, ElementCodec<? super E> codec) throws IOException {
+		out.writeByte(record.kind.ordinal());
+		writeVarLong(out, record.sequence);
+		if (record.kind == Kind.SORT || record.kind == Kind.SORT_REVERSE)
+			return;
+		writeVarLong(out, record.position);
+		if (record.kind != Kind.REMOVE)
+			codec.write(out, record.element);
+	}
+
+	/**
+	 * Decodes one record written by 'write'.
+	 *
+	 * @param in The stream to read from.
+	 * @param codec Reads the element.
+	 * @return The record, or null at the end of the stream.
+	 * @throws IOException If the stream cannot be read or is malformed.
+	 */
+	static <E> Record<E> read(DataInput in, ElementCodec<E> codec) throws IOException {
+		int tag;
+		try {
+			tag = in.readUnsignedByte();
+		} catch (EOFException e) {
+			return null;
+		}
+		if (tag >= Kind.values().length)
+			throw new IOException("Unknown change kind " + tag);
+
+		Kind kind = Kind.values()[tag];
+		long sequence = readVarLong(in);
+		if (kind == Kind.SORT || kind == Kind.SORT_REVERSE)
+			return new Record<>(sequence, kind, 0, null);
+		int position = (int) readVarLong(in);
+		E element = kind == Kind.REMOVE ? null : codec.read(in);
+		return new Record<>(sequence, kind, position, element);
+	}
+
+	private static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+}
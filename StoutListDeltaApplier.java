@@ -0,0 +1,119 @@
+package edu.iastate.cs228.hw3;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replays the changes recorded by a StoutListChangeLog onto a replica StoutList.
+ * The applier remembers the last sequence number it applied, so a replica catches up by asking the source log for
+ * 'since(appliedSequence())' and applying only those records. Records it has already applied are ignored, and a gap
+ * in the sequence is reported instead of silently diverging.
+ *
+ * @param <E> The element type of the list.
+ */
+
+public class StoutListDeltaApplier<E extends Comparable<? super E>> {
+
+	/**
+	 * The replica that receives the changes.
+	 */
+	private final StoutList<E> target;
+
+	/**
+	 * Sequence number of the last record applied.
+	 */
+	private long appliedSequence;
+
+	/**
+	 * Constructs an applier for a replica that is a copy of the source as of 'appliedSequence'.
+	 *
+	 * @param target The replica that receives the changes.
+	 * @param appliedSequence The sequence number the replica is already up to; 0 for a replica of an unchanged list.
+	 */
+
+	public StoutListDeltaApplier(StoutList<E> target, long appliedSequence) {
+		if (target == null)
+			throw new NullPointerException();
+		this.target = target;
+		this.appliedSequence = appliedSequence;
+	}
+
+	/**
+	 * @return the sequence number of the last record applied
+	 */
+	public long appliedSequence() {
+		return appliedSequence;
+	}
+
+	/**
+	 * Applies one record to the replica.
+	 *
+	 * @param record The record to apply.
+	 * @return 'true' if the record was applied, 'false' if it had already been applied.
+	 * @throws IllegalStateException If records between the last one applied and this one are missing.
+	 */
+
+	public boolean apply(StoutListChangeLog.Record<? extends E> record) {
+		if (record.sequence <= appliedSequence)
+			return false;
+		if (record.sequence != appliedSequence + 1)
+			throw new IllegalStateException("Missing changes " + (appliedSequence + 1) + " to " + (record.sequence - 1));
+
+		switch (record.kind) {
+		case INSERT:
+			target.add(record.position, record.element);
+			break;
+		case REMOVE:
+			target.remove(record.position);
+			break;
+		case SET:
+			target.replace(record.position, record.element);
+			break;
+		case SORT:
+			target.sort();
+			break;
+		case SORT_REVERSE:
+			target.sortReverse();
+			break;
+		}
+		appliedSequence = record.sequence;
+		return true;
+	}
+
+	/**
+	 * Applies records in order.
+	 *
+	 * @param records The records to apply.
+	 * @return The number of records applied.
+	 */
+
+	public int applyAll(Iterable<? extends StoutListChangeLog.Record<? extends E>> records) {
+		int applied = 0;
+		for (StoutListChangeLog.Record<? extends E> record : records) {
+			if (apply(record))
+				applied++;
+		}
+		return applied;
+	}
+
+	/**
+	 * Reads records written by 'StoutListChangeLog.writeTo()' until the end of the stream and applies them.
+	 *
+	 * @param in The stream to read; it is not closed.
+	 * @param codec Reads the elements.
+	 * @return The number of records applied.
+	 * @throws IOException If the stream cannot be read or is malformed.
+	 */
+
+	public int readFrom(InputStream in, ElementCodec<E> codec) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		int applied = 0;
+		StoutListChangeLog.Record<E> record;
+		while ((record = StoutListChangeLog.read(data, codec)) != null) {
+			if (apply(record))
+				applied++;
+		}
+		return applied;
+	}
+}
@@ -0,0 +1,314 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An ingestion front-end for a StoutList that is fed by many producer threads.
+ * Producers hand items to a bounded queue and get a future back; a single writer thread drains the queue,
+ * coalesces whatever is pending into a batch and appends the batch to the list as packed nodes.
+ *
+ * The writer holds the list's monitor while it appends, so readers that need a consistent view should
+ * synchronize on the list. Producers never touch the list and only block when the queue is full.
+ */
+
+public class StoutListIngestor<E extends Comparable<? super E>> implements AutoCloseable {
+	/**
+	 * Default number of items the queue can hold before producers are made to wait.
+	 */
+	private static final int DEFAULT_CAPACITY = 8192;
+
+	/**
+	 * Default largest number of items appended to the list in one batch.
+	 */
+	private static final int DEFAULT_MAX_BATCH = 1024;
+
+	/**
+	 * The list that receives the items.
+	 */
+	private final StoutList<E> list;
+
+	/**
+	 * Bounded queue shared by all producers and drained only by the writer.
+	 */
+	private final BlockingQueue<Request<E>> queue;
+
+	/**
+	 * Largest number of items appended in one batch.
+	 */
+	private final int maxBatch;
+
+	/**
+	 * The single thread that applies batches to the list.
+	 */
+	private final Thread writer;
+
+	/**
+	 * Set once 'close()' has been called; no further submissions are accepted after that.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Set when 'close()' is called on the writer thread itself, for instance from a future's callback.
+	 * The writer then finishes what is queued without waiting for more and exits. Only the writer touches it.
+	 */
+	private boolean closedByWriter;
+
+	/**
+	 * Constructs an ingestor with the default queue capacity and batch size, running its writer on a daemon thread.
+	 *
+	 * @param list The list that receives the items.
+	 */
+
+	public StoutListIngestor(StoutList<E> list) {
+		this(list, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, runnable -> {
+			Thread thread = new Thread(runnable, "stoutlist-ingestor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Constructs an ingestor with a specific queue capacity, batch size and writer thread factory.
+	 * On a runtime with virtual threads, 'Thread.ofVirtual().factory()' can be passed as the factory.
+	 *
+	 * @param list The list that receives the items.
+	 * @param capacity The number of items the queue can hold before 'submit' blocks.
+	 * @param maxBatch The largest number of items appended to the list in one batch.
+	 * @param threadFactory Creates the writer thread.
+	 * @throws IllegalArgumentException If 'capacity' or 'maxBatch' is not positive.
+	 */
+
+	public StoutListIngestor(StoutList<E> list, int capacity, int maxBatch, ThreadFactory threadFactory) {
+		if (list == null || threadFactory == null)
+			throw new NullPointerException();
+		if (capacity <= 0 || maxBatch <= 0)
+			throw new IllegalArgumentException();
+
+		this.list = list;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.maxBatch = maxBatch;
+		this.writer = threadFactory.newThread(this::drain);
+		writer.start();
+	}
+
+	/**
+	 * Queues an item to be appended to the end of the list.
+	 * If the queue is full the calling thread waits until the writer makes room, except on the writer thread itself
+	 * (from a future's callback), where the returned future fails with an IllegalStateException instead.
+	 *
+	 * @param item The item to append.
+	 * @return A future completed with 'true' once the item is in the list, or 'false' if it was a duplicate.
+	 * @throws NullPointerException If 'item' is null.
+	 * @throws IllegalStateException If the ingestor has been closed.
+	 */
+
+	public CompletableFuture<Boolean> submit(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		Request<E> request = new Request<>(item, false);
+		enqueue(request);
+		return request.future;
+	}
+
+	/**
+	 * Queues a marker that completes once every item submitted before it has been applied to the list.
+	 * Like 'submit', it does not wait for room when called on the writer thread.
+	 *
+	 * @return A future completed when the preceding items are in the list.
+	 * @throws IllegalStateException If the ingestor has been closed.
+	 */
+
+	public CompletableFuture<Boolean> flush() {
+		Request<E> request = new Request<>(null, false);
+		enqueue(request);
+		return request.future;
+	}
+
+	/**
+	 * Stops accepting submissions, waits for the writer to apply everything already queued, and stops the writer.
+	 * When called on the writer thread, for instance from a future's callback, it returns at once and the writer
+	 * stops after applying what is queued.
+	 */
+
+	@Override
+	public void close() {
+		if (Thread.currentThread() == writer) {
+			closed = true;
+			closedByWriter = true;
+			return;
+		}
+		if (closed)
+			return;
+		closed = true;
+		boolean interrupted = false;
+		Request<E> marker = new Request<>(null, true);
+		boolean queued = false;
+		while (true) {
+			try {
+				// A writer that died cannot make room, so stop offering once it is gone.
+				while (!queued && writer.isAlive())
+					queued = queue.offer(marker, 100, TimeUnit.MILLISECONDS);
+				writer.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		// Anything that slipped in behind the closing marker is refused.
+		Request<E> request;
+		while ((request = queue.poll()) != null) {
+			request.future.completeExceptionally(new IllegalStateException());
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Puts a request on the queue, waiting for room if necessary.
+	 * Futures are completed on the writer thread, so their callbacks may submit from it. The writer is the only thread
+	 * that makes room, so it must not wait: if the queue is full there, the request's future fails instead.
+	 *
+	 * @param request The request to queue.
+	 */
+
+	private void enqueue(Request<E> request) {
+		if (closed)
+			throw new IllegalStateException();
+		if (Thread.currentThread() == writer) {
+			if (!queue.offer(request))
+				request.future.completeExceptionally(new IllegalStateException("Queue full"));
+			return;
+		}
+		try {
+			queue.put(request);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			request.future.completeExceptionally(e);
+			return;
+		}
+		// If 'close()' ran meanwhile the writer may already be gone; take the request back and refuse it.
+		if (closed && queue.remove(request))
+			request.future.completeExceptionally(new IllegalStateException());
+	}
+
+	/**
+	 * Body of the writer thread. Takes one request, then whatever else is already pending up to 'maxBatch',
+	 * and applies the items as one batch. Markers complete after the items queued ahead of them.
+	 * The thread exits when it reaches the closing marker queued by 'close()', or when the queue runs dry after
+	 * 'close()' was called on the writer thread. However it exits, requests still queued are refused.
+	 */
+
+	private void drain() {
+		try {
+			drainUntilClosed();
+		} finally {
+			closed = true;
+			Request<E> request;
+			while ((request = queue.poll()) != null) {
+				request.future.completeExceptionally(new IllegalStateException());
+			}
+		}
+	}
+
+	private void drainUntilClosed() {
+		List<Request<E>> pending = new ArrayList<>(maxBatch);
+		List<E> items = new ArrayList<>(maxBatch);
+		boolean running = true;
+		while (running) {
+			if (closedByWriter) {
+				Request<E> request = queue.poll();
+				if (request == null)
+					return;
+				pending.add(request);
+			} else {
+				try {
+					pending.add(queue.take());
+				} catch (InterruptedException e) {
+					// Only 'close()' stops the writer; keep draining.
+					continue;
+				}
+			}
+			queue.drainTo(pending, maxBatch - 1);
+
+			int start = 0;
+			for (int i = 0; i < pending.size(); i++) {
+				Request<E> request = pending.get(i);
+				if (request.item == null) {
+					apply(pending, start, i, items);
+					start = i + 1;
+					request.future.complete(true);
+					if (request.last) {
+						running = false;
+						break;
+					}
+				}
+			}
+			if (running) {
+				apply(pending, start, pending.size(), items);
+			} else {
+				for (int i = start; i < pending.size(); i++) {
+					pending.get(i).future.completeExceptionally(new IllegalStateException());
+				}
+			}
+			pending.clear();
+		}
+	}
+
+	/**
+	 * Appends the items of the requests in 'pending[from, to)' to the list and completes their futures.
+	 *
+	 * @param pending The requests taken from the queue.
+	 * @param from The first request to apply.
+	 * @param to One past the last request to apply.
+	 * @param items Scratch list reused between batches.
+	 */
+
+	private void apply(List<Request<E>> pending, int from, int to, List<E> items) {
+		if (from >= to)
+			return;
+		items.clear();
+		for (int i = from; i < to; i++) {
+			items.add(pending.get(i).item);
+		}
+
+		boolean[] added;
+		try {
+			synchronized (list) {
+				added = list.appendBatch(items);
+			}
+		} catch (Throwable e) {
+			// Even an Error must not leave producers waiting on futures nobody will complete.
+			for (int i = from; i < to; i++) {
+				pending.get(i).future.completeExceptionally(e);
+			}
+			return;
+		}
+
+		for (int i = from; i < to; i++) {
+			pending.get(i).future.complete(added[i - from]);
+		}
+	}
+
+	/**
+	 * A queued item together with the future handed back to its producer.
+	 * A request with a null item is a flush marker; the one queued by 'close()' is also marked as the last.
+	 */
+
+	private static class Request<E> {
+		public final E item;
+		public final boolean last;
+		public final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+		public Request(E item, boolean last) {
+			this.item = item;
+			this.last = last;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks StoutListIngestor with several producers and with callbacks that submit from the writer thread.
+ * 1. Producers: threads submit overlapping ranges of items, so many submissions are duplicates. Every item must end
+ *    up in the list exactly once, and exactly one submission of each item must report 'true'.
+ * 2. Callbacks: with a tiny queue, futures whose callbacks submit again must not leave the writer waiting on a queue
+ *    that only it drains. The final 'flush()' must complete, and every resubmission is either applied or refused.
+ *
+ * Usage: java edu.iastate.cs228.hw3.StoutListIngestorCheck
+ */
+
+public class StoutListIngestorCheck {
+
+	public static void main(String[] args) throws Exception {
+		producers();
+		callbacks();
+		System.out.println("ingestor checks passed");
+	}
+
+	private static void producers() throws Exception {
+		StoutList<Integer> list = new StoutList<>(8);
+		int threads = 4;
+		int perThread = 20000;
+		List<Thread> producers = new ArrayList<>();
+		List<List<CompletableFuture<Boolean>>> futures = new ArrayList<>();
+		try (StoutListIngestor<Integer> ingestor = new StoutListIngestor<>(list, 256, 64, StoutListIngestorCheck::daemon)) {
+			for (int t = 0; t < threads; t++) {
+				// Neighbouring threads share half of their range.
+				int first = t * perThread / 2;
+				List<CompletableFuture<Boolean>> own = new ArrayList<>();
+				futures.add(own);
+				Thread producer = new Thread(() -> {
+					for (int i = first; i < first + perThread; i++) {
+						own.add(ingestor.submit(i));
+					}
+				});
+				producers.add(producer);
+				producer.start();
+			}
+			for (Thread producer : producers) {
+				producer.join();
+			}
+			ingestor.flush().get(30, TimeUnit.SECONDS);
+		}
+
+		int accepted = 0;
+		for (List<CompletableFuture<Boolean>> own : futures) {
+			for (CompletableFuture<Boolean> future : own) {
+				if (future.get())
+					accepted++;
+			}
+		}
+		int distinct = (threads + 1) * perThread / 2;
+		Set<Integer> seen = new HashSet<>(list);
+		check(list.size() == distinct, "producers: list holds " + list.size() + " items, expected " + distinct);
+		check(seen.size() == distinct, "producers: list holds duplicates");
+		check(accepted == distinct, "producers: " + accepted + " submissions reported as added");
+	}
+
+	private static void callbacks() throws Exception {
+		StoutList<Integer> list = new StoutList<>(4);
+		AtomicInteger refused = new AtomicInteger();
+		AtomicInteger resubmitted = new AtomicInteger();
+		// Not closed on failure: 'close()' would wait for a stuck writer forever. The submissions run on their own
+		// thread since a stuck writer also leaves them waiting for room.
+		StoutListIngestor<Integer> ingestor = new StoutListIngestor<>(list, 4, 2, StoutListIngestorCheck::daemon);
+		CompletableFuture<Boolean> done = CompletableFuture.supplyAsync(() -> {
+			for (int i = 0; i < 1000; i++) {
+				int item = i;
+				ingestor.submit(item).thenRun(() -> {
+					resubmitted.incrementAndGet();
+					ingestor.submit(-1 - item).whenComplete((added, failure) -> {
+						if (failure != null)
+							refused.incrementAndGet();
+					});
+					// A flush from the writer thread must not wait either.
+					ingestor.flush();
+				});
+			}
+			return ingestor.flush().join();
+		}, runnable -> daemon(runnable).start());
+		try {
+			done.get(30, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("callbacks: flush did not complete, the writer is stuck");
+		}
+		ingestor.close();
+
+		check(resubmitted.get() == 1000, "callbacks: " + resubmitted.get() + " callbacks ran");
+		int negatives = 0;
+		for (int item : list) {
+			if (item < 0)
+				negatives++;
+		}
+		check(negatives + refused.get() == 1000,
+				"callbacks: " + negatives + " resubmissions applied and " + refused.get() + " refused");
+	}
+
+	/**
+	 * A stuck writer must not keep the check from exiting with its failure.
+	 */
+	private static Thread daemon(Runnable runnable) {
+		Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition)
+			throw new IllegalStateException(message);
+	}
+}
@@ -0,0 +1,158 @@
+package edu.iastate.cs228.hw3;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks StoutList's tiered mode against an ArrayList holding the same elements.
+ * 1. Round trip: tiering is enabled, disabled and enabled again on the same page file, and then nodes are split and
+ *    evicted. Nodes must not keep pages from the first session, which the second 'enableTiering()' truncated.
+ * 2. Churn: random inserts and removes under a small budget must not grow the page file without bound,
+ *    because pages given up by removed or relocated nodes are reused.
+ * 3. Failed writes: when pages cannot be written, inserts and removes that throw must leave both the list and its
+ *    change log untouched, so a replica replaying the log still matches.
+ *
+ * Usage: java edu.iastate.cs228.hw3.TieredStoutListCheck
+ */
+
+public class TieredStoutListCheck {
+
+	public static void main(String[] args) throws IOException {
+		Path pageFile = Files.createTempFile("stoutlist", ".pages");
+		try {
+			roundTrip(pageFile);
+			churn(pageFile);
+			failedWrites(pageFile);
+			System.out.println("tiered mode checks passed");
+		} finally {
+			Files.deleteIfExists(pageFile);
+		}
+	}
+
+	private static void roundTrip(Path pageFile) throws IOException {
+		StoutList<Integer> list = new StoutList<>(4);
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			list.add(i);
+			expected.add(i);
+		}
+
+		list.enableTiering(pageFile, 4, ElementCodec.integers());
+		for (int i = 0; i < 4; i++) {
+			list.replace(i * 4, i * 4);
+		}
+		list.disableTiering();
+
+		list.enableTiering(pageFile, 4, ElementCodec.integers());
+		for (int i = 0; i < 12; i++) {
+			list.add(0, 100 + i);
+			expected.add(0, 100 + i);
+			// Keep the last node, whose page from the first session lies past the new end of the file, resident
+			// while the new nodes are evicted.
+			list.replace(list.size() - 1, expected.get(expected.size() - 1));
+		}
+		for (int pass = 0; pass < 2; pass++) {
+			List<Integer> actual = new ArrayList<>();
+			list.forEach(actual::add);
+			check(actual.equals(expected), "round trip pass " + pass + ": " + actual);
+		}
+		list.disableTiering();
+		check(new ArrayList<>(list).equals(expected), "round trip after disable");
+	}
+
+	private static void churn(Path pageFile) throws IOException {
+		StoutList<Integer> list = new StoutList<>(8);
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			list.add(i);
+			expected.add(i);
+		}
+
+		list.enableTiering(pageFile, 4, ElementCodec.integers());
+		Random random = new Random(7);
+		long largest = 0;
+		for (int step = 0; step < 20000; step++) {
+			if (random.nextBoolean()) {
+				int pos = random.nextInt(expected.size() + 1);
+				list.add(pos, -step);
+				expected.add(pos, -step);
+			} else {
+				int pos = random.nextInt(expected.size());
+				check(list.remove(pos).equals(expected.remove(pos)), "churn remove at step " + step);
+			}
+			if (step == 2000)
+				largest = Files.size(pageFile);
+		}
+		check(new ArrayList<>(list).equals(expected), "churn contents");
+		// Every node holds at most 8 four-byte elements, so the file should stay near its early size.
+		long pages = Files.size(pageFile) / (8 * 4);
+		check(Files.size(pageFile) <= 2 * largest, "page file grew from " + largest + " to " + Files.size(pageFile)
+				+ " bytes (" + pages + " pages for " + (expected.size() / 4 + 1) + " nodes at most)");
+		list.disableTiering();
+	}
+
+	private static void failedWrites(Path pageFile) throws IOException {
+		StoutList<Integer> list = new StoutList<>(4);
+		StoutList<Integer> replica = new StoutList<>(4);
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			list.add(i);
+			replica.add(i);
+			expected.add(i);
+		}
+		StoutListChangeLog<Integer> log = new StoutListChangeLog<>();
+		list.setChangeLog(log);
+
+		boolean[] failing = new boolean[1];
+		ElementCodec<Integer> integers = ElementCodec.integers();
+		list.enableTiering(pageFile, 4, new ElementCodec<Integer>() {
+			@Override
+			public void write(DataOutput out, Integer element) throws IOException {
+				if (failing[0])
+					throw new IOException("disk full");
+				integers.write(out, element);
+			}
+
+			@Override
+			public Integer read(DataInput in) throws IOException {
+				return integers.read(in);
+			}
+		});
+
+		Random random = new Random(11);
+		int failures = 0;
+		for (int step = 0; step < 5000; step++) {
+			failing[0] = random.nextInt(4) == 0;
+			try {
+				if (random.nextBoolean()) {
+					int pos = random.nextInt(expected.size() + 1);
+					list.add(pos, 1000 + step);
+					expected.add(pos, 1000 + step);
+				} else if (!expected.isEmpty()) {
+					int pos = random.nextInt(expected.size());
+					check(list.remove(pos).equals(expected.remove(pos)), "failed writes: remove at step " + step);
+				}
+			} catch (UncheckedIOException e) {
+				failures++;
+			}
+		}
+		failing[0] = false;
+		check(failures > 0, "failed writes: no write failed");
+		check(new ArrayList<>(list).equals(expected), "failed writes: contents");
+		new StoutListDeltaApplier<>(replica, 0).applyAll(log.since(0));
+		check(new ArrayList<>(replica).equals(expected), "failed writes: replica diverged after " + failures + " failures");
+		list.disableTiering();
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition)
+			throw new IllegalStateException(message);
+	}
+}